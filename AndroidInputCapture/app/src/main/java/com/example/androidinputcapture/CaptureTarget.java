@@ -0,0 +1,16 @@
+package com.example.androidinputcapture;
+
+/**
+ * The view that pointer capture is requested on and released from.
+ * On device this wraps the Unity render View. All calls happen on the UI thread.
+ */
+interface CaptureTarget {
+    /** Requests focus, including focus from touch, before capture is requested. */
+    void requestFocus();
+
+    boolean hasPointerCapture();
+
+    void requestPointerCapture();
+
+    void releasePointerCapture();
+}
@@ -0,0 +1,34 @@
+package com.example.androidinputcapture;
+
+/**
+ * Read-only view of a single captured pointer event.
+ * On device this wraps a MotionEvent; off device tests feed their own samples.
+ */
+interface CapturedPointerSample {
+    /** True for ACTION_MOVE / ACTION_HOVER_MOVE. */
+    boolean isMove();
+
+    /** True for ACTION_BUTTON_PRESS / ACTION_BUTTON_RELEASE. */
+    boolean isButtonChange();
+
+    /** True for ACTION_SCROLL. */
+    boolean isScroll();
+
+    /** Relative X movement while the pointer is captured. */
+    float getX();
+
+    /** Relative Y movement while the pointer is captured. */
+    float getY();
+
+    /** See MotionEvent.getButtonState(). */
+    int getButtonState();
+
+    /** See MotionEvent.getActionButton(). */
+    int getActionButton();
+
+    /** Value of MotionEvent.AXIS_VSCROLL. */
+    float getVerticalScroll();
+
+    /** Value of MotionEvent.AXIS_HSCROLL. */
+    float getHorizontalScroll();
+}
@@ -0,0 +1,225 @@
+package com.example.androidinputcapture;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Capture state machine and input handoff between the UI thread and Unity's game thread.
+ * <p>
+ * The UI thread feeds captured pointer events in via {@link #onCapturedPointer}; the game
+ * thread drains them through the consume methods. Lifecycle callbacks, beginCapture and
+ * endCapture may drive the state from either thread. Has no Android dependencies so it can
+ * be exercised on a plain JVM.
+ */
+final class PointerCaptureCore {
+
+    enum State {
+        /** No capture requested. Events are ignored. */
+        IDLE,
+        /** Capture requested, waiting for the first captured event (or the view) to confirm it. */
+        REQUESTED,
+        /** Capture confirmed. Events are accumulated for the game thread. */
+        CONFIRMED
+    }
+
+    private static final State[] STATES = State.values();
+
+    // State packed with a generation that every requestCapture()/reset() bumps, so a
+    // writer can tell that the state was replaced while it was working: (generation << 2) | state
+    private final AtomicLong stateWord = new AtomicLong(pack(0, State.IDLE));
+
+    // Deltas are accumulated (not overwritten) until consumed so that several events
+    // between two game frames are not lost. Floats are stored as raw int bits.
+    private final AtomicInteger dxBits = new AtomicInteger();
+    private final AtomicInteger dyBits = new AtomicInteger();
+    private final AtomicInteger verticalScrollBits = new AtomicInteger();
+    private final AtomicInteger horizontalScrollBits = new AtomicInteger();
+
+    private volatile int buttonState = 0;
+    private final AtomicInteger actionButton = new AtomicInteger(); // Button that triggered the action
+
+    State getState() {
+        return stateOf(stateWord.get());
+    }
+
+    boolean isCaptureRequested() {
+        return getState() != State.IDLE;
+    }
+
+    boolean isPointerCaptured() {
+        return getState() == State.CONFIRMED;
+    }
+
+    /**
+     * Clears any pending input and marks capture as requested.
+     * Input is cleared first so an event that confirms the new request can't be wiped by it.
+     */
+    void requestCapture() {
+        requestCapture(null);
+    }
+
+    /**
+     * Same as {@link #requestCapture()}, running {@code afterClear} between clearing the
+     * input and publishing REQUESTED. Lets tests land an event in that window.
+     */
+    void requestCapture(Runnable afterClear) {
+        clearInput();
+        if (afterClear != null)
+            afterClear.run();
+        stateWord.updateAndGet(word -> pack(generationOf(word) + 1, State.REQUESTED));
+    }
+
+    /**
+     * Moves REQUESTED to CONFIRMED within the same generation. Does nothing if capture was
+     * reset in the meantime, so a late confirmation can never resurrect a released capture.
+     *
+     * @return true if this call performed the transition
+     */
+    boolean confirmCapture() {
+        long word = stateWord.get();
+        return stateOf(word) == State.REQUESTED
+                && stateWord.compareAndSet(word, pack(generationOf(word), State.CONFIRMED));
+    }
+
+    /**
+     * Drops back to IDLE and discards pending input.
+     *
+     * @return true if capture was requested or confirmed before the reset
+     */
+    boolean reset() {
+        long previous = stateWord.getAndUpdate(word -> pack(generationOf(word) + 1, State.IDLE));
+        clearInput();
+        return stateOf(previous) != State.IDLE;
+    }
+
+    /**
+     * Ingests one captured pointer event. Must be called on the UI thread.
+     * Input written while a reset, or the publish step of a new request, lands is discarded,
+     * so nothing from an ended capture is left to consume. An event that is accepted and
+     * fully written after {@link #requestCapture()} cleared the input but before it published
+     * REQUESTED is kept: it belonged to the still confirmed capture and carries over into
+     * the new request.
+     *
+     * @return true if the event was consumed, false if capture is not confirmed
+     */
+    boolean onCapturedPointer(CapturedPointerSample sample) {
+        confirmCapture(); // The first captured event confirms a pending request
+        long observed = stateWord.get();
+        if (stateOf(observed) != State.CONFIRMED)
+            return false;
+
+        if (sample.isMove()) {
+            accumulate(dxBits, sample.getX());
+            accumulate(dyBits, sample.getY());
+        }
+
+        buttonState = sample.getButtonState();
+        if (sample.isButtonChange()) {
+            actionButton.set(sample.getActionButton());
+        }
+
+        if (sample.isScroll()) {
+            accumulate(verticalScrollBits, sample.getVerticalScroll());
+            accumulate(horizontalScrollBits, sample.getHorizontalScroll());
+        }
+
+        if (stateWord.get() != observed) {
+            // A reset or new request replaced the state during the writes above and may have
+            // cleared input before they landed. Only this thread writes input, so drop it all.
+            clearInput();
+        }
+        return true;
+    }
+
+    /**
+     * UI thread half of beginCapture: focuses the target and requests capture after
+     * {@code delayMillis}, unless capture was ended before the delay ran out.
+     */
+    void requestCaptureOnUiThread(CaptureTarget target, UiThreadScheduler scheduler, long delayMillis) {
+        target.requestFocus();
+        if (target.hasPointerCapture()) {
+            // Already captured, no event will arrive to confirm it
+            confirmCapture();
+            return;
+        }
+        scheduler.postDelayed(() -> {
+            if (isCaptureRequested()) {
+                target.requestPointerCapture();
+            }
+        }, delayMillis);
+    }
+
+    /**
+     * UI thread half of endCapture: releases capture if the target still holds it.
+     *
+     * @return true if capture was released
+     */
+    boolean releaseCaptureOnUiThread(CaptureTarget target) {
+        if (!target.hasPointerCapture())
+            return false;
+        target.releasePointerCapture();
+        return true;
+    }
+
+    // --- Consumers (game thread) ---
+
+    float consumeDx() {
+        return consume(dxBits);
+    }
+
+    float consumeDy() {
+        return consume(dyBits);
+    }
+
+    int getButtonState() {
+        return buttonState;
+    }
+
+    int consumeActionButton() {
+        return actionButton.getAndSet(0);
+    }
+
+    float consumeVerticalScrollDelta() {
+        return consume(verticalScrollBits);
+    }
+
+    float consumeHorizontalScrollDelta() {
+        return consume(horizontalScrollBits);
+    }
+
+    private void clearInput() {
+        dxBits.set(0);
+        dyBits.set(0);
+        buttonState = 0;
+        actionButton.set(0);
+        verticalScrollBits.set(0);
+        horizontalScrollBits.set(0);
+    }
+
+    private static long pack(long generation, State state) {
+        return generation << 2 | state.ordinal();
+    }
+
+    private static long generationOf(long word) {
+        return word >>> 2;
+    }
+
+    private static State stateOf(long word) {
+        return STATES[(int) (word & 3)];
+    }
+
+    private static void accumulate(AtomicInteger bits, float delta) {
+        if (delta == 0)
+            return;
+        int prev;
+        int next;
+        do {
+            prev = bits.get();
+            next = Float.floatToRawIntBits(Float.intBitsToFloat(prev) + delta);
+        } while (!bits.compareAndSet(prev, next));
+    }
+
+    private static float consume(AtomicInteger bits) {
+        return Float.intBitsToFloat(bits.getAndSet(0));
+    }
+}
@@ -27,21 +27,16 @@ public class PointerCaptureHelper implements Application.ActivityLifecycleCallba
     private static final String TAG = "PointerCaptureHelper";
     private static final PointerCaptureHelper INSTANCE = new PointerCaptureHelper();
 
-    private static volatile float lastDx = 0, lastDy = 0;
-    // Use a queue or list for button presses and scroll deltas if needed,
-    // but for simplicity, we'll just store the latest states/deltas for now.
-    private static volatile int lastButtonState = 0;
-    private static volatile int lastActionButton = 0; // Button that triggered the action
-    private static volatile float lastVerticalScrollDelta = 0;
-    private static volatile float lastHorizontalScrollDelta = 0;
+    private static final long CAPTURE_REQUEST_DELAY_MS = 100;
 
-
-    private static volatile boolean captureRequested = false;
-    private static volatile boolean hasCaptureConfirmed = false;
+    // Capture state and the UI thread -> game thread input handoff live in the core,
+    // this class only wires it to Activity/View/MotionEvent/Handler.
+    private static final PointerCaptureCore CORE = new PointerCaptureCore();
 
     private WeakReference<Activity> currentActivityRef = new WeakReference<>(null);
     private WeakReference<View> unityViewRef = new WeakReference<>(null);
     private Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final UiThreadScheduler uiThreadScheduler = mainThreadHandler::postDelayed;
 
     private static boolean initialized = false;
 
@@ -52,41 +47,18 @@ public class PointerCaptureHelper implements Application.ActivityLifecycleCallba
 //                 Log.d(TAG, "onCapturedPointer event received: action=" + event.getAction() +
 //                 ", source=" + event.getSource() + ", buttonState=" + event.getButtonState());
 
-                if (captureRequested && !hasCaptureConfirmed) {
+                boolean wasConfirmed = CORE.isPointerCaptured();
+                // Wrap per event: the framework recycles the MotionEvent after dispatch
+                MotionEventSample sample = new MotionEventSample(event);
+                boolean consumed = CORE.onCapturedPointer(sample);
+                if (consumed && !wasConfirmed) {
                     Log.d(TAG, "onCapturedPointer: Capture confirmed by first event.");
-                    hasCaptureConfirmed = true;
-                }
-                if (!hasCaptureConfirmed)
-                    return false;
-
-                int source = event.getSource();
-                int action = event.getAction();
-
-                // Handle relative mouse movement
-                    if (action == MotionEvent.ACTION_MOVE || action == MotionEvent.ACTION_HOVER_MOVE) {
-                        lastDx = event.getX();
-                        lastDy = event.getY();
-                         Log.d(TAG, "Captured Relative Move: dx=" + lastDx + ", dy=" + lastDy);
-                    }
-
-                lastButtonState = event.getButtonState();
-                if (action == MotionEvent.ACTION_BUTTON_PRESS || action == MotionEvent.ACTION_BUTTON_RELEASE) {
-                    lastActionButton = event.getActionButton();
-                  Log.d(TAG, "Captured Button State Change: action=" + action +
-                           ", button=" + lastActionButton + ", state=" + lastButtonState);
                 }
-
-                if (action == MotionEvent.ACTION_SCROLL) {
-                    if (event.getAxisValue(MotionEvent.AXIS_VSCROLL) != 0)
-                        lastVerticalScrollDelta = event.getAxisValue(MotionEvent.AXIS_VSCROLL);
-                    if (event.getAxisValue(MotionEvent.AXIS_HSCROLL) != 0)
-                        lastHorizontalScrollDelta = event.getAxisValue(MotionEvent.AXIS_HSCROLL);
+                if (consumed && sample.isButtonChange()) {
+                    Log.d(TAG, "Captured Button State Change: action=" + event.getAction() +
+                            ", button=" + event.getActionButton() + ", state=" + event.getButtonState());
                 }
-
-                // By default, return false so that the event may continue to be processed
-                // if not explicitly consumed by the helper.
-//                return false;
-            return true;
+                return consumed;
             };
     }
 
@@ -125,7 +97,7 @@ public class PointerCaptureHelper implements Application.ActivityLifecycleCallba
             // If a different activity is resumed, and we thought we had capture,
             // it means the Unity activity is likely paused or stopped.
             // Reset capture state in this case.
-            if (hasCaptureConfirmed || captureRequested) {
+            if (CORE.isCaptureRequested()) {
                 Log.d(TAG, "Different activity resumed, resetting capture state.");
                 resetCaptureState();
             }
@@ -275,17 +247,9 @@ public class PointerCaptureHelper implements Application.ActivityLifecycleCallba
     }
 
     private static void resetCaptureState() {
-        if (captureRequested || hasCaptureConfirmed) {
-            Log.d(TAG, "Resetting capture state flags and input deltas.");
+        if (CORE.reset()) {
+            Log.d(TAG, "Reset capture state flags and input deltas.");
         }
-        captureRequested = false;
-        hasCaptureConfirmed = false;
-        lastDx = 0;
-        lastDy = 0;
-        lastButtonState = 0;
-        lastActionButton = 0;
-        lastVerticalScrollDelta = 0;
-        lastHorizontalScrollDelta = 0;
     }
 
     // --- Static Methods for Unity ---
@@ -297,15 +261,7 @@ public class PointerCaptureHelper implements Application.ActivityLifecycleCallba
         }
 
         Log.d(TAG, "beginCapture: Called from Unity. Requesting capture...");
-        captureRequested = true; // Mark as requested
-        hasCaptureConfirmed = false; // Reset confirmation status
-        lastDx = 0; // Reset deltas on new request
-        lastDy = 0;
-        lastButtonState = 0; // Reset button state
-        lastActionButton = 0; // Reset action button
-        lastVerticalScrollDelta = 0; // Reset scroll deltas
-        lastHorizontalScrollDelta = 0;
-
+        CORE.requestCapture(); // Mark as requested and reset pending input
 
         Activity activity = INSTANCE.currentActivityRef.get();
         // If activity ref is lost, try getting current activity again
@@ -318,7 +274,7 @@ public class PointerCaptureHelper implements Application.ActivityLifecycleCallba
                 INSTANCE.tryAttachListener(activity);
             } else {
                 Log.e(TAG, "beginCapture: Cannot capture, Activity is null or not found.");
-                INSTANCE.resetCaptureState(); // Capture failed immediately
+                resetCaptureState(); // Capture failed immediately
                 return;
             }
         }
@@ -338,39 +294,18 @@ public class PointerCaptureHelper implements Application.ActivityLifecycleCallba
                     INSTANCE.tryAttachListener(finalActivity); // Pass activity
                 } else {
                     Log.e(TAG, "beginCapture (UI Thread): Failed to find Unity view to request capture.");
-                    INSTANCE.resetCaptureState(); // Capture failed
+                    resetCaptureState(); // Capture failed
                     return; // Cannot proceed without view
                 }
             }
 
             // Now we have a view, and tryAttachListener should have ensured the listener is attached
-            if (view != null) {
-                Log.d(TAG, "beginCapture (UI Thread): Requesting focus and capture on view: " + view);
-                // Ensure focus before requesting capture
-                view.requestFocus();
-                view.requestFocusFromTouch(); // Added this line
-
-                if (view.hasPointerCapture()) {
-                    Log.d(TAG, "beginCapture (UI Thread): View already reports having pointer capture.");
-                    // If it already reports having capture, assume it's active for our state tracking
-                    hasCaptureConfirmed = true;
-                } else {
-                    Log.d(TAG, "beginCapture (UI Thread): Calling requestPointerCapture() with 100ms delay.");
-                    // Capture the view variable as final for use in the delayed lambda
-                    final View finalViewForDelayedCapture = view;
-                    INSTANCE.mainThreadHandler.postDelayed(() -> {
-                        // This is the delayed call
-                        if (finalViewForDelayedCapture != null) { // Use the final variable
-                            Log.d(TAG, "beginCapture (UI Thread, delayed): Calling requestPointerCapture() now.");
-                            finalViewForDelayedCapture.requestPointerCapture();
-                            // We wait for the first onCapturedPointer event to set hasCaptureConfirmed = true
-                        } else {
-                            Log.w(TAG, "beginCapture (UI Thread, delayed): View became null before delayed capture request.");
-                            INSTANCE.resetCaptureState(); // Capture failed
-                        }
-                    }, 100); // 100ms delay
-                }
-            } // Else branch handled above if view is null
+            Log.d(TAG, "beginCapture (UI Thread): Requesting focus and capture on view: " + view);
+            // If the view already has capture this confirms it, otherwise requestPointerCapture()
+            // runs after a delay and the first onCapturedPointer event confirms it.
+            // The delayed request is skipped if endCapture() ran in the meantime.
+            CORE.requestCaptureOnUiThread(new ViewCaptureTarget(view), INSTANCE.uiThreadScheduler,
+                    CAPTURE_REQUEST_DELAY_MS);
         });
     }
 
@@ -411,31 +346,30 @@ public class PointerCaptureHelper implements Application.ActivityLifecycleCallba
                 }
             }
 
-            if (view != null) {
-                if (view.hasPointerCapture()) {
-                    Log.d(TAG, "endCapture (UI Thread): Calling releasePointerCapture() on view: " + view);
-                    view.releasePointerCapture();
-                } else {
-                    Log.d(TAG, "endCapture (UI Thread): View did not report having capture, but state was reset.");
-                }
-            } // Else branch handled above if view is null
+            if (CORE.releaseCaptureOnUiThread(new ViewCaptureTarget(view))) {
+                Log.d(TAG, "endCapture (UI Thread): Released pointer capture on view: " + view);
+            } else {
+                Log.d(TAG, "endCapture (UI Thread): View did not report having capture, but state was reset.");
+            }
         });
     }
 
     public static boolean isPointerCaptured() {
-        return hasCaptureConfirmed;
+        return CORE.isPointerCaptured();
     }
 
+    /**
+     * Returns the relative X movement accumulated since the last call.
+     */
     public static float getLastDx() {
-        float tmp = lastDx;
-        lastDx = 0; // Consume the delta
-        return tmp;
+        return CORE.consumeDx();
     }
 
+    /**
+     * Returns the relative Y movement accumulated since the last call.
+     */
     public static float getLastDy() {
-        float tmp = lastDy;
-        lastDy = 0; // Consume the delta
-        return tmp;
+        return CORE.consumeDy();
     }
 
     /**
@@ -443,7 +377,7 @@ public class PointerCaptureHelper implements Application.ActivityLifecycleCallba
      * See MotionEvent.getButtonState() for button constants (e.g., MotionEvent.BUTTON_PRIMARY).
      */
     public static int getLastButtonState() {
-        return lastButtonState;
+        return CORE.getButtonState();
     }
 
     /**
@@ -451,29 +385,75 @@ public class PointerCaptureHelper implements Application.ActivityLifecycleCallba
      * See MotionEvent.getActionButton() for button constants.
      */
     public static int getLastActionButton() {
-        int tmp = lastActionButton;
-        lastActionButton = 0; // Consume the action button
-        return tmp;
+        return CORE.consumeActionButton();
     }
 
     /**
-     * Returns the latest vertical scroll delta.
-     * Value is typically -1.0 for down, 1.0 for up.
+     * Returns the vertical scroll delta accumulated since the last call.
+     * Value is typically -1.0 for down, 1.0 for up per notch.
      */
     public static float getLastVerticalScrollDelta() {
-        float tmp = lastVerticalScrollDelta;
-        lastVerticalScrollDelta = 0; // Consume the delta
-        return tmp;
+        return CORE.consumeVerticalScrollDelta();
     }
 
     /**
-     * Returns the latest horizontal scroll delta.
-     * Value depends on the input device, often -1.0 for left, 1.0 for right.
+     * Returns the horizontal scroll delta accumulated since the last call.
+     * Value depends on the input device, often -1.0 for left, 1.0 for right per notch.
      */
     public static float getLastHorizontalScrollDelta() {
-        float tmp = lastHorizontalScrollDelta;
-        lastHorizontalScrollDelta = 0; // Consume the delta
-        return tmp;
+        return CORE.consumeHorizontalScrollDelta();
+    }
+
+    // --- Android adapters for the core ---
+
+    private static final class MotionEventSample implements CapturedPointerSample {
+        private final MotionEvent event;
+
+        MotionEventSample(@NonNull MotionEvent event) {
+            this.event = event;
+        }
+
+        @Override
+        public boolean isMove() {
+            int action = event.getAction();
+            return action == MotionEvent.ACTION_MOVE || action == MotionEvent.ACTION_HOVER_MOVE;
+        }
+
+        @Override
+        public boolean isButtonChange() {
+            int action = event.getAction();
+            return action == MotionEvent.ACTION_BUTTON_PRESS || action == MotionEvent.ACTION_BUTTON_RELEASE;
+        }
+
+        @Override
+        public boolean isScroll() {
+            return event.getAction() == MotionEvent.ACTION_SCROLL;
+        }
+
+        @Override public float getX() { return event.getX(); }
+        @Override public float getY() { return event.getY(); }
+        @Override public int getButtonState() { return event.getButtonState(); }
+        @Override public int getActionButton() { return event.getActionButton(); }
+        @Override public float getVerticalScroll() { return event.getAxisValue(MotionEvent.AXIS_VSCROLL); }
+        @Override public float getHorizontalScroll() { return event.getAxisValue(MotionEvent.AXIS_HSCROLL); }
+    }
+
+    private static final class ViewCaptureTarget implements CaptureTarget {
+        private final View view;
+
+        ViewCaptureTarget(@NonNull View view) {
+            this.view = view;
+        }
+
+        @Override
+        public void requestFocus() {
+            view.requestFocus();
+            view.requestFocusFromTouch();
+        }
+
+        @Override public boolean hasPointerCapture() { return view.hasPointerCapture(); }
+        @Override public void requestPointerCapture() { view.requestPointerCapture(); }
+        @Override public void releasePointerCapture() { view.releasePointerCapture(); }
     }
 
 
@@ -0,0 +1,8 @@
+package com.example.androidinputcapture;
+
+/**
+ * Posts delayed work to the UI thread. On device this wraps the main looper Handler.
+ */
+interface UiThreadScheduler {
+    void postDelayed(Runnable task, long delayMillis);
+}
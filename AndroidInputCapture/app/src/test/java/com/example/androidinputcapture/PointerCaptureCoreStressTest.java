@@ -0,0 +1,452 @@
+package com.example.androidinputcapture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Off-device stress tests for {@link PointerCaptureCore}.
+ * <p>
+ * Runs the UI thread (event producer), Unity's game thread (consumer, beginCapture/endCapture)
+ * and lifecycle callbacks concurrently against one core and checks that deltas are neither
+ * lost nor duplicated and that capture can't come back after it was ended.
+ * Throughput under contention is printed to stdout.
+ * <p>
+ * Iterations per run can be raised with {@code -Dpointercapture.stress.iterations=N}.
+ * Deltas are small integers and the producer is never more than one batch ahead of the
+ * consumer, so pending float sums stay exact at any iteration count.
+ * On a single core threads only interleave through preemption, so the races these tests
+ * look for are hit far less often there than on multi-core hardware.
+ */
+public class PointerCaptureCoreStressTest {
+
+    private static final int ITERATIONS = Integer.getInteger("pointercapture.stress.iterations", 2_000_000);
+    private static final int BATCH = 1 << 16;
+    private static final long JOIN_TIMEOUT_MS = 60_000;
+
+    // Set when a worker fails or the run times out, so the other workers stop waiting for it
+    private final AtomicBoolean aborted = new AtomicBoolean(false);
+
+    @Test
+    public void deltaHandoff_noLossNoDuplication() throws Exception {
+        PointerCaptureCore core = new PointerCaptureCore();
+        core.requestCapture();
+        assertTrue(core.confirmCapture());
+
+        // Producer and consumer meet at the start of every batch so the consumer is draining
+        // while the producer is writing, instead of one of them running far ahead. The consumer
+        // never yields inside a batch: on a single core the threads then only interleave through
+        // preemption, which can land between any two instructions of a consume.
+        int batches = Math.max(1, ITERATIONS / BATCH);
+        AtomicInteger consumerReady = new AtomicInteger(-1);
+        AtomicInteger producerDone = new AtomicInteger(-1);
+        long[] produced = new long[5]; // dx, dy, vscroll, hscroll, button events
+        long[] consumed = new long[5];
+        long[] rejected = new long[1];
+
+        Runnable uiThread = () -> {
+            FakeSample sample = new FakeSample();
+            for (int batch = 0; batch < batches; batch++) {
+                final int current = batch;
+                if (!spinUntil(() -> consumerReady.get() >= current)) return;
+                for (int i = 0; i < BATCH; i++) {
+                    sample.move(1, -2);
+                    if (i % 8 == 0) sample.scroll(1, -1);
+                    if (i % 16 == 0) sample.buttonChange(i % 3 + 1);
+                    if (!core.onCapturedPointer(sample)) {
+                        rejected[0]++;
+                        continue;
+                    }
+
+                    produced[0] += 1;
+                    produced[1] -= 2;
+                    if (i % 8 == 0) { produced[2] += 1; produced[3] -= 1; }
+                    if (i % 16 == 0) produced[4]++;
+                }
+                producerDone.set(batch);
+            }
+        };
+        Runnable gameThread = () -> {
+            for (int batch = 0; batch < batches && !aborted.get(); batch++) {
+                consumerReady.set(batch);
+                boolean last;
+                do {
+                    last = producerDone.get() >= batch; // One more full drain after the batch is written
+                    consumed[0] += (long) core.consumeDx();
+                    consumed[1] += (long) core.consumeDy();
+                    consumed[2] += (long) core.consumeVerticalScrollDelta();
+                    consumed[3] += (long) core.consumeHorizontalScrollDelta();
+                    if (core.consumeActionButton() != 0) consumed[4]++;
+                } while (!last && !aborted.get());
+            }
+        };
+
+        long nanos = runConcurrently(uiThread, gameThread);
+        report("delta handoff", (long) batches * BATCH, nanos);
+
+        assertEquals("events rejected while capture was confirmed", 0, rejected[0]);
+        assertEquals("dx", produced[0], consumed[0]);
+        assertEquals("dy", produced[1], consumed[1]);
+        assertEquals("vertical scroll", produced[2], consumed[2]);
+        assertEquals("horizontal scroll", produced[3], consumed[3]);
+        // Action button is a latest-wins slot: presses may be coalesced but never duplicated
+        assertTrue("action button duplicated", consumed[4] <= produced[4]);
+    }
+
+    @Test
+    public void lifecycleInterleaving_keepsStateMachineInvariants() throws Exception {
+        PointerCaptureCore core = new PointerCaptureCore();
+        FakeTarget target = new FakeTarget();
+        Queue<Runnable> uiQueue = new ConcurrentLinkedQueue<>();
+        UiThreadScheduler scheduler = (task, delayMillis) -> uiQueue.add(task);
+
+        AtomicBoolean producerDone = new AtomicBoolean(false);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong resurrections = new AtomicLong();
+        AtomicLong lifecycleOps = new AtomicLong();
+        long[] consumedDx = new long[1];
+        // Every reset, from endCapture or a lifecycle callback, records how many requests had
+        // completed before it ran. While no request has started since, the core must stay IDLE
+        // and refuse events; anything else is a stale confirmation that survived a reset.
+        AtomicLong requestsStarted = new AtomicLong();
+        AtomicLong requestsCompleted = new AtomicLong();
+        AtomicLong requestsEnded = new AtomicLong();
+        Runnable endCapture = () -> {
+            long completed = requestsCompleted.get();
+            core.reset();
+            requestsEnded.accumulateAndGet(completed, Math::max);
+        };
+        Runnable checkEnded = () -> {
+            long ended = requestsEnded.get();
+            boolean requested = core.isCaptureRequested();
+            if (requested && requestsStarted.get() == ended) resurrections.incrementAndGet();
+        };
+
+        Runnable uiThread = () -> {
+            FakeSample sample = new FakeSample();
+            long acceptedDx = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                drain(uiQueue);
+                sample.move(1, 0);
+                if (i % 16 == 0) sample.buttonChange(1);
+                long ended = requestsEnded.get();
+                if (core.onCapturedPointer(sample)) {
+                    acceptedDx++;
+                    if (requestsStarted.get() == ended) resurrections.incrementAndGet();
+                }
+                checkEnded.run();
+            }
+            accepted.set(acceptedDx);
+            producerDone.set(true);
+        };
+        // Unity calls beginCapture/endCapture and reads deltas on the game thread
+        Runnable gameThread = () -> {
+            int frame = 0;
+            while (!producerDone.get() && !aborted.get()) {
+                consumedDx[0] += (long) core.consumeDx();
+                core.consumeDy();
+                core.isPointerCaptured();
+
+                int phase = frame++ % 64;
+                if (phase == 0) {
+                    requestsStarted.incrementAndGet();
+                    core.requestCapture();
+                    requestsCompleted.incrementAndGet();
+                    uiQueue.add(() -> core.requestCaptureOnUiThread(target, scheduler, 0));
+                } else if (phase == 32) {
+                    endCapture.run();
+                    uiQueue.add(() -> core.releaseCaptureOnUiThread(target));
+                }
+                lifecycleOps.incrementAndGet();
+            }
+            consumedDx[0] += (long) core.consumeDx();
+        };
+        // Pause/stop/destroy and "different activity resumed" reset from their own callbacks
+        Runnable lifecycleThread = () -> {
+            while (!producerDone.get() && !aborted.get()) {
+                endCapture.run();
+                checkEnded.run();
+                lifecycleOps.incrementAndGet();
+                Thread.yield();
+            }
+        };
+
+        long nanos = runConcurrently(uiThread, gameThread, lifecycleThread);
+        report("lifecycle interleaving", ITERATIONS + lifecycleOps.get(), nanos);
+
+        assertEquals("capture came back after it was ended", 0, resurrections.get());
+        assertTrue("consumed " + consumedDx[0] + " > accepted " + accepted.get(),
+                consumedDx[0] <= accepted.get());
+        if (core.getState() == PointerCaptureCore.State.IDLE) {
+            // The last lifecycle reset must not leave input from the ended capture behind
+            assertNoPendingInput(core);
+        }
+
+        // A last beginCapture ended before its UI work ran: endCapture's release runs first,
+        // then the stale UI work, including the delayed request, must not capture again
+        core.requestCapture();
+        uiQueue.add(() -> core.requestCaptureOnUiThread(target, scheduler, 0));
+        core.reset();
+        core.releaseCaptureOnUiThread(target);
+        drain(uiQueue);
+        drain(uiQueue);
+        assertEquals(PointerCaptureCore.State.IDLE, core.getState());
+        assertFalse("pointer captured again after endCapture", target.hasPointerCapture());
+        assertFalse(core.onCapturedPointer(new FakeSample().move(1, 1)));
+        assertNoPendingInput(core);
+    }
+
+    @Test
+    public void endCaptureDuringRequestDelay_skipsDelayedRequest() {
+        PointerCaptureCore core = new PointerCaptureCore();
+        FakeTarget target = new FakeTarget();
+        Queue<Runnable> uiQueue = new ConcurrentLinkedQueue<>();
+        UiThreadScheduler scheduler = (task, delayMillis) -> uiQueue.add(task);
+
+        core.requestCapture();
+        core.requestCaptureOnUiThread(target, scheduler, 100);
+        drain(uiQueue);
+        assertTrue("delayed request should capture", target.hasPointerCapture());
+        core.reset();
+        core.releaseCaptureOnUiThread(target);
+
+        core.requestCapture();
+        core.requestCaptureOnUiThread(target, scheduler, 100);
+        core.reset();
+        drain(uiQueue);
+        assertFalse("delayed request ran after endCapture", target.hasPointerCapture());
+    }
+
+    @Test
+    public void resetDuringIngest_leavesNoInputBehind() {
+        PointerCaptureCore core = new PointerCaptureCore();
+        core.requestCapture();
+        // reset() lands after the CONFIRMED check, before the deltas and button are written
+        FakeSample sample = new FakeSample().move(3, 4).buttonChange(1).onRead(core::reset);
+
+        core.onCapturedPointer(sample);
+
+        assertEquals(PointerCaptureCore.State.IDLE, core.getState());
+        assertNoPendingInput(core);
+    }
+
+    @Test
+    public void requestDuringIngest_startsFromCleanInput() {
+        PointerCaptureCore core = new PointerCaptureCore();
+        core.requestCapture();
+        assertTrue(core.onCapturedPointer(new FakeSample().move(1, 1)));
+        core.consumeDx();
+        core.consumeDy();
+        FakeSample sample = new FakeSample().move(3, 4).buttonChange(1).onRead(core::requestCapture);
+
+        core.onCapturedPointer(sample);
+
+        assertEquals(PointerCaptureCore.State.REQUESTED, core.getState());
+        assertNoPendingInput(core);
+    }
+
+    @Test
+    public void eventBetweenRequestClearAndPublish_carriesIntoNewRequest() {
+        PointerCaptureCore core = new PointerCaptureCore();
+        core.requestCapture();
+        assertTrue(core.confirmCapture());
+
+        // The whole event lands after requestCapture() cleared the input but before it
+        // published REQUESTED. It was accepted under the confirmed capture, so it is kept.
+        core.requestCapture(() ->
+                assertTrue(core.onCapturedPointer(new FakeSample().move(3, 4).buttonChange(1))));
+
+        assertEquals(PointerCaptureCore.State.REQUESTED, core.getState());
+        assertEquals("dx", 3f, core.consumeDx(), 0f);
+        assertEquals("dy", 4f, core.consumeDy(), 0f);
+        assertEquals("button state", 1, core.getButtonState());
+        assertEquals("action button", 1, core.consumeActionButton());
+    }
+
+    @Test
+    public void requestAndConfirmRaceWithReset_neverLeavesCaptureConfirmed() throws Exception {
+        PointerCaptureCore core = new PointerCaptureCore();
+        // Each round starts a thread, so keep the count well below ITERATIONS
+        int rounds = Math.min(ITERATIONS / 100, 20_000);
+        AtomicLong stuck = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        for (int round = 0; round < rounds && failure.get() == null; round++) {
+            core.requestCapture();
+            CountDownLatch go = new CountDownLatch(1);
+            Thread confirmer = new Thread(() -> {
+                awaitQuietly(go);
+                try {
+                    core.onCapturedPointer(new FakeSample().move(1, 1));
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            confirmer.setDaemon(true);
+            confirmer.start();
+            go.countDown();
+            core.reset();
+            confirmer.join(JOIN_TIMEOUT_MS);
+            assertFalse("confirmer timed out after " + JOIN_TIMEOUT_MS + " ms", confirmer.isAlive());
+            if (core.isPointerCaptured()) stuck.incrementAndGet();
+        }
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        assertEquals("confirmation outlived reset", 0, stuck.get());
+    }
+
+    // --- Harness ---
+
+    private static void assertNoPendingInput(PointerCaptureCore core) {
+        assertEquals("dx", 0f, core.consumeDx(), 0f);
+        assertEquals("dy", 0f, core.consumeDy(), 0f);
+        assertEquals("vertical scroll", 0f, core.consumeVerticalScrollDelta(), 0f);
+        assertEquals("horizontal scroll", 0f, core.consumeHorizontalScrollDelta(), 0f);
+        assertEquals("button state", 0, core.getButtonState());
+        assertEquals("action button", 0, core.consumeActionButton());
+    }
+
+    private long runConcurrently(Runnable... tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (Runnable task : tasks) {
+            Thread thread = new Thread(() -> {
+                awaitQuietly(start);
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                    aborted.set(true);
+                }
+            });
+            thread.setDaemon(true); // A stuck worker must not keep the test JVM alive
+            thread.start();
+            threads.add(thread);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long deadline = begin + JOIN_TIMEOUT_MS * 1_000_000;
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, (deadline - System.nanoTime()) / 1_000_000));
+        }
+        long elapsed = System.nanoTime() - begin;
+        boolean timedOut = false;
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                aborted.set(true);
+                thread.join(1_000);
+                timedOut = true;
+            }
+        }
+        if (failure.get() instanceof AssertionError) throw (AssertionError) failure.get();
+        if (failure.get() == null && timedOut) throw new AssertionError("Timed out after " + JOIN_TIMEOUT_MS + " ms");
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        return elapsed;
+    }
+
+    /**
+     * @return false if the run was aborted before {@code condition} held
+     */
+    private boolean spinUntil(BooleanSupplier condition) {
+        int spins = 0;
+        while (!condition.getAsBoolean()) {
+            if (aborted.get()) return false;
+            Thread.onSpinWait();
+            if (++spins % 64 == 0) Thread.yield();
+        }
+        return true;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void drain(Queue<Runnable> queue) {
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static void report(String name, long ops, long nanos) {
+        System.out.printf("%s: %,d ops in %.1f ms (%,.0f ops/s)%n",
+                name, ops, nanos / 1e6, ops / (nanos / 1e9));
+    }
+
+    private static final class FakeSample implements CapturedPointerSample {
+        private boolean move, buttonChange, scroll;
+        private float x, y, vscroll, hscroll;
+        private int actionButton;
+        private Runnable onRead;
+
+        /** Runs {@code hook} once, in the middle of the core's writes for the next move. */
+        FakeSample onRead(Runnable hook) {
+            onRead = hook;
+            return this;
+        }
+
+        FakeSample move(float dx, float dy) {
+            move = true;
+            buttonChange = false;
+            scroll = false;
+            x = dx;
+            y = dy;
+            return this;
+        }
+
+        void scroll(float vertical, float horizontal) {
+            scroll = true;
+            vscroll = vertical;
+            hscroll = horizontal;
+        }
+
+        FakeSample buttonChange(int button) {
+            buttonChange = true;
+            actionButton = button;
+            return this;
+        }
+
+        @Override public boolean isMove() { return move; }
+        @Override public boolean isButtonChange() { return buttonChange; }
+        @Override public boolean isScroll() { return scroll; }
+        @Override public float getX() {
+            if (onRead != null) {
+                Runnable hook = onRead;
+                onRead = null;
+                hook.run();
+            }
+            return x;
+        }
+        @Override public float getY() { return y; }
+        @Override public int getButtonState() { return buttonChange ? actionButton : 0; }
+        @Override public int getActionButton() { return actionButton; }
+        @Override public float getVerticalScroll() { return vscroll; }
+        @Override public float getHorizontalScroll() { return hscroll; }
+    }
+
+    private static final class FakeTarget implements CaptureTarget {
+        private final AtomicBoolean captured = new AtomicBoolean(false);
+
+        @Override public void requestFocus() {}
+        @Override public boolean hasPointerCapture() { return captured.get(); }
+        @Override public void requestPointerCapture() { captured.set(true); }
+        @Override public void releasePointerCapture() { captured.set(false); }
+    }
+}